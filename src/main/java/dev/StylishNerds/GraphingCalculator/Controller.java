@@ -5,6 +5,8 @@
  */
 package dev.StylishNerds.GraphingCalculator;
 
+import javafx.application.ConditionalFeature;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -21,37 +23,69 @@ import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.TableColumn.CellEditEvent;
+import java.math.BigDecimal;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 
 public class Controller implements Initializable {
 
+    private static final int MAX_RESULTS = 500;
+    private static final Pattern TRIG = Pattern.compile("sin|cos|tan|sec|csc|cot");
+
     // instance fields/variables
     private final SimpleStringProperty output;
-    private final Parser parser;
+    private final Parser<Expression> parser;
+    private Parser<DecimalExpression> decimalParser;
+    private final HashMap<String, Double> vars;                 // 'ans', for the double path
+    private final HashMap<String, BigDecimal> decimalVars;      // 'ans', exactly, for the decimal path
     private final ObservableList<GraphableFunc> userFunctions;
+    private final FeatureService featureService;
+    private final PreviewService previewService;
+    private final History history;
+    private final LinkedHashMap<String, String> results;   // memoized results, least recently used first
+    private boolean previewPending;
+    private boolean featuresPending;
 
     /**
      * Constructor for our controller
      */
     public Controller() {
         this.output = new SimpleStringProperty("");
-        this.parser = new Parser();
+        this.parser = new Parser<>(new DoubleKernel());
+        this.vars = new HashMap<>();
+        this.decimalVars = new HashMap<>();
         this.userFunctions = FXCollections.observableArrayList();
+        this.featureService = new FeatureService();
+        this.previewService = new PreviewService();
+        this.history = new History();
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_RESULTS;
+            }
+        };
     }
 
     // FXML created objects, only import the objects
     // we actually need to control/modify
     @FXML private Label display;        // handles the actual display/output for our calculator
+    @FXML private Label preview;        // live result of the current input
+    @FXML private ChoiceBox<NumberMode> numberModeChoice;
     @FXML private TableView<GraphableFunc> userFuncTable;
     @FXML private TableColumn<GraphableFunc, String> indexCol;
     @FXML private TableColumn<GraphableFunc, String> functionCol;
     @FXML private TableColumn<GraphableFunc, Boolean> checkBoxCol;
-    @FXML private ToggleButton graphToggleButton, normToggleButton;
+    @FXML private ListView<Feature> featureList;
+    @FXML private ToggleButton graphToggleButton, normToggleButton, surfaceToggleButton;
     @FXML private ToggleGroup modeControl;
     @FXML private VBox normalModePane;
     @FXML private SplitPane graphModePane;
@@ -59,6 +93,10 @@ public class Controller implements Initializable {
     @FXML private NumberAxis xAxis;
     @FXML private NumberAxis yAxis;
     @FXML private Slider negXSlider, negYSlider, posXSlider, posYSlider;
+    @FXML private VBox surfaceModePane;
+    @FXML private Pane surfaceView;
+    @FXML private TextField surfaceInput;
+    @FXML private Slider surfaceRangeSlider;
 
     /**
      * Event Handler for number key presses
@@ -71,7 +109,9 @@ public class Controller implements Initializable {
     }
 
     /**
-     * Parses the actual input now for scientific mode
+     * Parses the actual input now for scientific mode;
+     * a plain string switch, so replaying thousands of
+     * keystrokes never touches the regex engine
      * @param key   the last input, as a string
      *              either the keycode from a keyevent
      *              or the button .label text from
@@ -80,32 +120,36 @@ public class Controller implements Initializable {
     private void processInput(String key) {
         String curr = output.get(); // grab existing output for efficiency
         // check for error string and clear it.
-        if (curr.matches("Error|Undefined")) {
+        if (curr.equals("Error") || curr.equals("Undefined")) {
             output.set("");
+            curr = "";
         }
-        if (key.matches("[=]")) {               // match equals/enter first
-            computeNow();
-        } else if (key.matches("C|CE")) {       // catch clear before generic alpha catching for functions
-            output.set("");
-        } else if (key.matches("⇍")) {
-            if (noEntry()) {
-                return;
-            } else {
-                output.set(curr.substring(0, curr.length() - 1));
-            }
-        } else if (key.matches("\\+/-")) {      // handle 'invert' sign: i.e. "+/-" key
-            if (noEntry()) {
-                return;
-            } else if (curr.charAt(0) == '-') {
-                output.set(curr.substring(1)); // remove the leading '-'
-            } else {
-                output.set("-(" + curr + ")"); // negate the current input & wrap in parens to be safe
-            }
-        } else if (key.matches("1/x")) {        // handle reciprocal key
-            output.set("1/(" + curr + ")" );
-            computeNow();
-        } else {
-            output.set(curr + key);
+        switch (key) {
+            case "=":               // equals/enter
+                computeNow(); break;
+            case "C":               // clear
+            case "CE":
+                output.set(""); break;
+            case "⇍":
+                if (!noEntry()) {
+                    output.set(curr.substring(0, curr.length() - 1));
+                }
+                break;
+            case "+/-":             // handle 'invert' sign: i.e. "+/-" key
+                if (noEntry()) {
+                    return;
+                } else if (curr.charAt(0) == '-') {
+                    output.set(curr.substring(1)); // remove the leading '-'
+                } else {
+                    output.set("-(" + curr + ")"); // negate the current input & wrap in parens to be safe
+                }
+                break;
+            case "1/x":             // handle reciprocal key
+                output.set("1/(" + curr + ")" );
+                computeNow();
+                break;
+            default:
+                output.set(curr + key); break;
         }
     }
 
@@ -120,23 +164,165 @@ public class Controller implements Initializable {
     }
 
     /**
-     * Hands off computation to the parser class
-     * and catches errors accordingly
+     * Evaluates the current input, and records it
+     * in the history for recall and 'ans'
      */
     private void computeNow() {
+        String exp = output.get();
+        String result = evaluate(exp);
+        history.add(exp, result);
+        output.set(result);
+    }
+
+    /**
+     * Hands off computation to the parser class
+     * and catches errors accordingly; results are
+     * memoized per number mode and expression
+     * @param exp   the expression to evaluate
+     * @return      the result, formatted for display,
+     *              or "Error"/"Undefined"
+     */
+    private String evaluate(String exp) {
+        NumberMode mode = numberModeChoice.getValue();
+        String key = resultKey(mode, exp);
+        String result = results.get(key);
+        if (result == null) {
+            if (mode.isDecimal()) {
+                decimalVars.put("ans", history.getAnswer());
+                result = evaluateDecimal(decimalParser, exp, mode);
+            } else {
+                result = evaluateDouble(exp);
+            }
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * build the memo key for an expression; 'ans' is a
+     * variable, so its current value is part of the key
+     * @param mode  the selected number mode
+     * @param exp   the expression as entered
+     * @return      the key into results
+     */
+    private String resultKey(NumberMode mode, String exp) {
+        String key = mode.name() + ":" + exp;
+        return exp.contains("ans") ? key + "|ans=" + history.getAnswer() : key;
+    }
+
+    /**
+     * Evaluate an expression on the primitive double path
+     * @param exp   the expression to evaluate
+     * @return      the result, as a display string
+     */
+    private String evaluateDouble(String exp) {
         try {
-            Expression x = parser.eval(output.get());
+            vars.put("ans", history.getAnswer().doubleValue());
+            Expression x = parser.eval(exp, vars);
             Double result = x.eval();
             if (result.isNaN()) {   // make sure we actually have a number
-                output.set("Undefined");
+                return "Undefined";
             } else {
-                output.set(String.valueOf(result));
+                return String.valueOf(result);
             }
         } catch (Exception e) {
-            output.set("Error");
+            return "Error";
+        }
+    }
+
+    /**
+     * Arbitrary-precision version of evaluateDouble,
+     * only used when the user picks a decimal mode;
+     * static, so the preview can run it off the FX thread
+     * @param parser    a decimal parser for the mode
+     * @param exp       the expression to evaluate
+     * @param mode      the selected (decimal) number mode
+     * @return          the result, as a display string
+     */
+    static String evaluateDecimal(Parser<DecimalExpression> parser, String exp, NumberMode mode) {
+        try {
+            DecimalExpression x = parser.eval(exp);
+            BigDecimal result = x.eval();
+            return DecimalMath.format(result, mode.getMathContext());
+        } catch (ArithmeticException e) {   // the BigDecimal equivalent of NaN/Infinity
+            return "Undefined";
+        } catch (Exception e) {
+            return "Error";
+        }
+    }
+
+    /**
+     * Queue a live preview of the current input; many
+     * changes in a row (e.g. replayed keystrokes) only
+     * cost a single evaluation, on the next pulse
+     */
+    private void schedulePreview() {
+        if (!previewPending) {
+            previewPending = true;
+            Platform.runLater(() -> {
+                previewPending = false;
+                updatePreview();
+            });
+        }
+    }
+
+    /**
+     * Show the value of the current input; double mode
+     * and memoized results are shown straight away,
+     * otherwise the decimal evaluation is handed off
+     * to the preview service
+     */
+    private void updatePreview() {
+        if (noEntry()) {
+            previewService.cancel();
+            preview.setText("");
+            return;
+        }
+        NumberMode mode = numberModeChoice.getValue();
+        String key = resultKey(mode, output.get());
+        if (!mode.isDecimal() || results.containsKey(key)) {
+            previewService.cancel();
+            showPreview(evaluate(output.get()));
+        } else {
+            preview.setText("");    // don't leave a stale value up while we wait
+            previewService.update(output.get(), key, mode, history.getAnswer());
         }
     }
 
+    /**
+     * Show a preview result, if it evaluates,
+     * and isn't just the value itself
+     * @param result    the result for the current input
+     */
+    private void showPreview(String result) {
+        if (result.equals("Error") || result.equals(output.get())) {
+            result = "";
+        }
+        preview.setText(result);
+    }
+
+    /**
+     * Initialize the number mode picker; the decimal
+     * parser is only (re)built when a decimal mode is
+     * picked, so double mode never pays for it
+     */
+    private void initNumberMode() {
+        numberModeChoice.getItems().setAll(NumberMode.values());
+        numberModeChoice.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal.isDecimal()) {
+                decimalParser = new Parser<>(new DecimalKernel(newVal.getMathContext(), decimalVars));
+            } else {
+                decimalParser = null;
+            }
+            this.schedulePreview();
+        });
+        numberModeChoice.setValue(NumberMode.DOUBLE);
+        previewService.setOnSucceeded(e -> {
+            results.put(previewService.getKey(), previewService.getValue());
+            showPreview(previewService.getValue());
+        });
+    }
+
     /**
      * Event handler for keyboard input instead of
      * our GUI/buttons
@@ -150,6 +336,20 @@ public class Controller implements Initializable {
             case DELETE:    // intentionally fall through
             case BACK_SPACE:
                 processInput("⇍"); break;
+            case UP:        // recall history
+                String prev = history.previous(output.get());
+                if (prev != null) {
+                    output.set(prev);
+                }
+                e.consume();
+                break;
+            case DOWN:
+                String next = history.next();
+                if (next != null) {
+                    output.set(next);
+                }
+                e.consume();
+                break;
             default:
                 processInput(e.getText()); break;
         }
@@ -202,11 +402,52 @@ public class Controller implements Initializable {
             double yVal = exp.eval();
             data.getData().add(new Data<>(i, exp.eval()));
         }
+        this.scheduleFeatures();
+    }
+
+    /**
+     * Queue a feature search; a slider drag moves
+     * several axis bounds, and replotting touches
+     * every row, but the search restarts only once,
+     * on the next pulse
+     */
+    private void scheduleFeatures() {
+        if (!featuresPending) {
+            featuresPending = true;
+            Platform.runLater(() -> {
+                featuresPending = false;
+                findFeatures();
+            });
+        }
+    }
+
+    /**
+     * findFeatures: (re)start the background search for
+     * zeros, extrema, and intersections of every checked
+     * function, inside the current viewport
+     */
+    private void findFeatures() {
+        List<FeatureFinder.Curve> curves = new ArrayList<>();
+        for (GraphableFunc func : userFunctions) {
+            if (!func.checkedProperty().get() || func.getExpression() == null) {
+                continue;
+            }
+            try {
+                // compile a private copy, since the search runs off the FX thread
+                HashMap<String, Double> vars = new HashMap<>();
+                Expression exp = parser.eval(func.getRawInput(), vars);
+                curves.add(new FeatureFinder.Curve(func.getIndex(), func.getRawInput(),
+                        func.getVarName(), exp, vars));
+            } catch (Exception e) {
+                // skip rows that no longer parse
+            }
+        }
+        featureService.update(curves, xAxis.getLowerBound(), xAxis.getUpperBound(),
+                yAxis.getLowerBound(), yAxis.getUpperBound());
     }
 
     private boolean isTrigFunc(String in) {
-	    Pattern p = Pattern.compile("sin|cos|tan|sec|csc|cot");
-	    return p.matcher(in).find();
+	    return TRIG.matcher(in).find();
     }
 
     /**
@@ -214,7 +455,9 @@ public class Controller implements Initializable {
      * graphing input table
      */
     private void addFunctionRow() {
-        userFunctions.add(new GraphableFunc(userFunctions.size()));
+        GraphableFunc func = new GraphableFunc(userFunctions.size());
+        func.checkedProperty().addListener((obs, oldVal, newVal) -> this.scheduleFeatures());
+        userFunctions.add(func);
     }
 
     /**
@@ -229,7 +472,7 @@ public class Controller implements Initializable {
         functionCol.setCellValueFactory(cellData -> cellData.getValue().rawInputProperty());
         functionCol.setCellFactory(TextFieldTableCell.forTableColumn());
         functionCol.setOnEditCommit(this::parseFuncInput);
-        userFunctions.add(new GraphableFunc(userFunctions.size())); // add the first entry row
+        this.addFunctionRow(); // add the first entry row
         userFuncTable.setItems(userFunctions);
     }
 
@@ -246,6 +489,29 @@ public class Controller implements Initializable {
         // set the label formatter for our axis to only show ints
         xAxis.setTickLabelFormatter(new AxisFormatter());
         yAxis.setTickLabelFormatter(new AxisFormatter());
+        // keep the feature list in step with the viewport
+        xAxis.lowerBoundProperty().addListener(obs -> this.scheduleFeatures());
+        xAxis.upperBoundProperty().addListener(obs -> this.scheduleFeatures());
+        yAxis.lowerBoundProperty().addListener(obs -> this.scheduleFeatures());
+        yAxis.upperBoundProperty().addListener(obs -> this.scheduleFeatures());
+        featureService.setOnSucceeded(e -> featureList.getItems().setAll(featureService.getValue()));
+        featureService.setOnFailed(e -> featureList.getItems().clear());  // don't leave stale features up
+    }
+
+    /**
+     * Initialize surface mode; z = f(x, y) is replotted
+     * when the input is committed, or the range changes
+     */
+    private void initSurface() {
+        if (!Platform.isSupported(ConditionalFeature.SCENE3D)) {
+            surfaceInput.setDisable(true);
+            surfaceInput.setPromptText("3D is not supported on this system");
+            return;
+        }
+        SurfacePlot surface = new SurfacePlot(surfaceView);
+        surfaceInput.setOnAction(e -> surface.plot(surfaceInput.getText(), surfaceRangeSlider.getValue()));
+        surfaceRangeSlider.valueProperty().addListener(obs ->
+                surface.plot(surfaceInput.getText(), surfaceRangeSlider.getValue()));
     }
 
     /**
@@ -256,15 +522,21 @@ public class Controller implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
         // bind our output display/label
         this.display.textProperty().bind(this.output);
+        this.output.addListener(obs -> this.schedulePreview());
+        // initialize the number mode picker
+        this.initNumberMode();
         // hook the pane to register our keyHandler
         this.normalModePane.setOnKeyPressed(this::keyHandler);
         // bind our mode toggle buttons
         this.normToggleButton.selectedProperty().bindBidirectional(normalModePane.visibleProperty());
         this.graphToggleButton.selectedProperty().bindBidirectional(graphModePane.visibleProperty());
+        this.surfaceToggleButton.selectedProperty().bindBidirectional(surfaceModePane.visibleProperty());
         // initialize the graph input table
         this.initTable();
         // initialize the actual graph/chart
         this.initGraph();
+        // initialize the 3D surface view
+        this.initSurface();
         // select normal mode by default on launch
         this.modeControl.selectToggle(normToggleButton);
         // ensure we never end up without a mode selected
@@ -0,0 +1,16 @@
+/**
+ * DecimalExpression.java (interface)
+ *
+ * The arbitrary-precision twin of Expression;
+ * to conform to this interface, a class must
+ * implement an "eval" method, that returns
+ * a BigDecimal.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.math.BigDecimal;
+
+public interface DecimalExpression {
+
+    BigDecimal eval();
+}
@@ -0,0 +1,141 @@
+/*
+    DecimalKernel.java
+
+    An arbitrary-precision number kernel; compiles
+    expressions down to lambdas over BigDecimals,
+    rounded to a user selected MathContext.
+
+    Variables are looked up in the BigDecimal map
+    first (e.g. 'ans', which must keep every digit),
+    then in the usual map of doubles.
+
+    Literals are parsed exactly, so e.g. '0.1+0.2'
+    evaluates to exactly 0.3. Anything that would be
+    NaN/Infinity for doubles throws an ArithmeticException.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.function.UnaryOperator;
+
+public class DecimalKernel implements NumberKernel<DecimalExpression> {
+
+    // instance variables
+    private final HashMap<String, UnaryOperator<BigDecimal>> map;
+    private final MathContext mc;
+    private final HashMap<String, BigDecimal> values;
+
+    /**
+     * Constructor for our decimal kernel
+     * @param mc    the precision/rounding used for
+     *              every operation in a compiled tree
+     */
+    public DecimalKernel(MathContext mc) {
+        this(mc, new HashMap<>());
+    }
+
+    /**
+     * Constructor for a decimal kernel with exact variables
+     * @param mc        the precision/rounding used for
+     *                  every operation in a compiled tree
+     * @param values    variables with exact values, read at
+     *                  evaluation time, like the vars map
+     */
+    public DecimalKernel(MathContext mc, HashMap<String, BigDecimal> values) {
+        this.map = new HashMap<>();
+        this.mc = mc;
+        this.values = values;
+        initFuncMap();
+    }
+
+    /**
+     * Populate our function map with precision-aware
+     * versions of the same functions DoubleKernel uses
+     */
+    private void initFuncMap() {
+        map.put("sin", (val) -> DecimalMath.sin(val, mc));
+        map.put("cos", (val) -> DecimalMath.cos(val, mc));
+        map.put("tan", (val) -> DecimalMath.tan(val, mc));
+        map.put("asin", (val) -> DecimalMath.asin(val, mc));
+        map.put("acos", (val) -> DecimalMath.acos(val, mc));
+        map.put("atan", (val) -> DecimalMath.atan(val, mc));
+        map.put("sqrt", (val) -> DecimalMath.sqrt(val, mc));
+        map.put("√", (val) -> DecimalMath.sqrt(val, mc));
+        map.put("log", (val) -> DecimalMath.log(val, mc));
+        map.put("exp", (val) -> DecimalMath.exp(val, mc));
+        map.put("sec", (val) -> BigDecimal.ONE.divide(DecimalMath.cos(val, mc), mc));
+        map.put("csc", (val) -> BigDecimal.ONE.divide(DecimalMath.sin(val, mc), mc));
+        map.put("cot", (val) -> BigDecimal.ONE.divide(DecimalMath.tan(val, mc), mc));
+    }
+
+    public MathContext getMathContext() {
+        return mc;
+    }
+
+    @Override
+    public DecimalExpression constant(String literal) {
+        BigDecimal d = new BigDecimal(literal);
+        return () -> d;
+    }
+
+    @Override
+    public DecimalExpression variable(String name, HashMap<String, Double> vars) {
+        return () -> {
+            BigDecimal value = values.get(name);
+            return (value != null) ? value : BigDecimal.valueOf(vars.get(name));
+        };
+    }
+
+    @Override
+    public boolean hasFunction(String name) {
+        return map.containsKey(name);
+    }
+
+    @Override
+    public DecimalExpression function(String name, DecimalExpression arg) {
+        UnaryOperator<BigDecimal> func = map.get(name);
+        return () -> func.apply(arg.eval());
+    }
+
+    @Override
+    public DecimalExpression add(DecimalExpression left, DecimalExpression right) {
+        return () -> left.eval().add(right.eval(), mc);
+    }
+
+    @Override
+    public DecimalExpression subtract(DecimalExpression left, DecimalExpression right) {
+        return () -> left.eval().subtract(right.eval(), mc);
+    }
+
+    @Override
+    public DecimalExpression multiply(DecimalExpression left, DecimalExpression right) {
+        return () -> left.eval().multiply(right.eval(), mc);
+    }
+
+    @Override
+    public DecimalExpression divide(DecimalExpression left, DecimalExpression right) {
+        return () -> left.eval().divide(right.eval(), mc);
+    }
+
+    @Override
+    public DecimalExpression modulo(DecimalExpression left, DecimalExpression right) {
+        return () -> DecimalMath.remainder(left.eval(), right.eval(), mc);
+    }
+
+    @Override
+    public DecimalExpression pow(DecimalExpression left, DecimalExpression right) {
+        return () -> DecimalMath.pow(left.eval(), right.eval(), mc);
+    }
+
+    @Override
+    public DecimalExpression root(DecimalExpression left, DecimalExpression right) {
+        return () -> DecimalMath.pow(left.eval(), BigDecimal.ONE.divide(right.eval(), mc), mc);
+    }
+
+    @Override
+    public DecimalExpression negate(DecimalExpression right) {
+        return () -> right.eval().negate();
+    }
+}
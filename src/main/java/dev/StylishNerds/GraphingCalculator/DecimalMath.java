@@ -0,0 +1,382 @@
+/*
+    DecimalMath.java
+
+    Precision-aware versions of the unary functions
+    the parser supports, for use by DecimalKernel.
+
+    Each function works internally with a handful of
+    guard digits, then rounds the result to the
+    requested MathContext. Results that would be
+    NaN for doubles throw an ArithmeticException.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+public final class DecimalMath {
+
+    private static final int GUARD_DIGITS = 10;
+    private static final int MAX_ITERATIONS = 100;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal TENTH = new BigDecimal("0.1");
+    private static final BigDecimal EXP_LIMIT = new BigDecimal("1E9");
+    private static final BigDecimal ANGLE_LIMIT = new BigDecimal("1E9");
+
+    // the most precise pi computed so far; smaller precisions just round it
+    private static BigDecimal cachedPi;
+    private static int cachedPiPrecision;
+
+    private DecimalMath() {
+    }
+
+    /**
+     * build a working MathContext with extra guard digits
+     * @param mc        the precision requested by the caller
+     * @param extra     any digits needed beyond the usual guard
+     * @return          the MathContext to compute with
+     */
+    private static MathContext working(MathContext mc, int extra) {
+        return new MathContext(mc.getPrecision() + GUARD_DIGITS + extra, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * the smallest term worth adding in a series
+     * @param wmc   the working MathContext
+     * @return      10^-(working precision)
+     */
+    private static BigDecimal epsilon(MathContext wmc) {
+        return BigDecimal.ONE.movePointLeft(wmc.getPrecision());
+    }
+
+    /**
+     * number of digits before the decimal point
+     * @param x the value to measure
+     * @return  the count of integer digits, at least zero
+     */
+    private static int integerDigits(BigDecimal x) {
+        return Math.max(0, x.precision() - x.scale());
+    }
+
+    /**
+     * compute pi via Machin's formula:
+     * pi = 16 atan(1/5) - 4 atan(1/239);
+     * only recomputed when more digits are needed
+     * than any previous call asked for
+     * @param mc    the precision to compute to
+     * @return      pi, rounded to mc
+     */
+    public static synchronized BigDecimal pi(MathContext mc) {
+        if (cachedPi == null || cachedPiPrecision < mc.getPrecision()) {
+            MathContext wmc = working(mc, 0);
+            BigDecimal a = atanInverse(5, wmc).multiply(BigDecimal.valueOf(16), wmc);
+            BigDecimal b = atanInverse(239, wmc).multiply(BigDecimal.valueOf(4), wmc);
+            cachedPi = a.subtract(b, wmc);
+            cachedPiPrecision = mc.getPrecision();
+        }
+        return cachedPi.round(mc);
+    }
+
+    /**
+     * taylor series for atan(1/n), used by pi()
+     * @param n     the (integer) reciprocal argument
+     * @param wmc   the working MathContext
+     * @return      atan(1/n)
+     */
+    private static BigDecimal atanInverse(int n, MathContext wmc) {
+        BigDecimal eps = epsilon(wmc);
+        BigDecimal nSquared = BigDecimal.valueOf((long) n * n);
+        BigDecimal power = BigDecimal.ONE.divide(BigDecimal.valueOf(n), wmc);
+        BigDecimal sum = power;
+        for (int k = 1; power.compareTo(eps) > 0; k++) {
+            power = power.divide(nSquared, wmc);
+            BigDecimal term = power.divide(BigDecimal.valueOf(2L * k + 1), wmc);
+            sum = (k % 2 == 0) ? sum.add(term, wmc) : sum.subtract(term, wmc);
+        }
+        return sum;
+    }
+
+    public static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+        if (x.signum() < 0) {
+            throw new ArithmeticException("Undefined");
+        }
+        return x.sqrt(mc);
+    }
+
+    /**
+     * e^x; halve the argument until it's small, sum
+     * the taylor series, then square back up
+     * @param x     the exponent
+     * @param mc    the precision to compute to
+     * @return      e^x, rounded to mc
+     */
+    public static BigDecimal exp(BigDecimal x, MathContext mc) {
+        if (x.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        if (x.abs().compareTo(EXP_LIMIT) > 0) {
+            throw new ArithmeticException("Overflow");
+        }
+        int halvings = 0;
+        double d = x.abs().doubleValue();
+        if (d > 0.5) {
+            halvings = (int) Math.ceil(Math.log(d / 0.5) / Math.log(2));
+        }
+        // every squaring doubles the relative error; pay for it up front
+        MathContext wmc = working(mc, (int) Math.ceil(halvings * Math.log10(2)));
+        BigDecimal r = x.divide(TWO.pow(halvings), wmc);
+        BigDecimal eps = epsilon(wmc);
+        BigDecimal term = BigDecimal.ONE;
+        BigDecimal sum = BigDecimal.ONE;
+        for (int n = 1; term.abs().compareTo(eps) > 0; n++) {
+            term = term.multiply(r, wmc).divide(BigDecimal.valueOf(n), wmc);
+            sum = sum.add(term, wmc);
+        }
+        for (int i = 0; i < halvings; i++) {
+            sum = sum.multiply(sum, wmc);
+        }
+        return sum.round(mc);
+    }
+
+    /**
+     * natural log; split x into m * 10^e with m in [1, 10),
+     * so log(x) = log(m) + e * log(10)
+     * @param x     the value to take the log of
+     * @param mc    the precision to compute to
+     * @return      ln(x), rounded to mc
+     */
+    public static BigDecimal log(BigDecimal x, MathContext mc) {
+        if (x.signum() <= 0) {
+            throw new ArithmeticException("Undefined");
+        }
+        int e = x.precision() - x.scale() - 1;
+        MathContext wmc = working(mc, String.valueOf(Math.abs(e)).length());
+        BigDecimal m = x.movePointLeft(e);
+        BigDecimal result = logNewton(m, wmc);
+        if (e != 0) {
+            BigDecimal ln10 = logNewton(BigDecimal.TEN, wmc);
+            result = result.add(ln10.multiply(BigDecimal.valueOf(e), wmc), wmc);
+        }
+        return result.round(mc);
+    }
+
+    /**
+     * solve e^y = m for y, with halley's method,
+     * starting from the double precision estimate
+     * @param m     a positive value of modest size
+     * @param wmc   the working MathContext
+     * @return      ln(m)
+     */
+    private static BigDecimal logNewton(BigDecimal m, MathContext wmc) {
+        // exp() is only good to the last digit or so, so asking for a
+        // full epsilon can leave delta hovering just above it forever
+        BigDecimal eps = BigDecimal.ONE.movePointLeft(wmc.getPrecision() - GUARD_DIGITS / 2);
+        BigDecimal y = new BigDecimal(Math.log(m.doubleValue()), wmc);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            BigDecimal ey = exp(y, wmc);
+            BigDecimal delta = TWO.multiply(m.subtract(ey, wmc), wmc)
+                    .divide(m.add(ey, wmc), wmc);
+            y = y.add(delta, wmc);
+            if (delta.abs().compareTo(eps) <= 0) {
+                break;
+            }
+        }
+        return y;
+    }
+
+    /**
+     * x^y; integral exponents use BigDecimal.pow directly,
+     * everything else goes through exp(y * log(x))
+     * @param x     the base
+     * @param y     the exponent
+     * @param mc    the precision to compute to
+     * @return      x^y, rounded to mc
+     */
+    public static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mc) {
+        BigDecimal stripped = y.stripTrailingZeros();
+        if (stripped.scale() <= 0 && stripped.abs().compareTo(BigDecimal.valueOf(999999999)) <= 0) {
+            return x.pow(stripped.intValueExact(), mc);
+        }
+        if (x.signum() < 0) {
+            throw new ArithmeticException("Undefined");
+        } else if (x.signum() == 0) {
+            if (y.signum() > 0) {
+                return BigDecimal.ZERO;
+            }
+            throw new ArithmeticException("Undefined");
+        }
+        // error in y*log(x) is magnified by its size once exponentiated
+        double estimate = Math.abs(y.doubleValue() * Math.log(x.doubleValue()));
+        int extra = Double.isFinite(estimate) ? (int) Math.ceil(Math.log10(estimate + 1)) : 20;
+        MathContext wmc = working(mc, extra);
+        return exp(y.multiply(log(x, wmc), wmc), mc);
+    }
+
+    /**
+     * the exact remainder of x / y, with the sign of x,
+     * rounded to mc; both operands are already rounded,
+     * so the remainder is well defined however large the
+     * quotient is. Scaling both to integers over a common
+     * power of ten, x = a * 10^k with k possibly huge, so
+     * a * 10^k mod m is taken with modPow rather than
+     * expanding every digit of x
+     * @param x     the dividend
+     * @param y     the divisor
+     * @param mc    the precision to round to
+     * @return      x % y, rounded to mc
+     */
+    public static BigDecimal remainder(BigDecimal x, BigDecimal y, MathContext mc) {
+        if (y.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (x.abs().compareTo(y.abs()) < 0) {
+            return x.round(mc);
+        }
+        // |x| >= |y| bounds scale - y.scale() by the digits of x
+        int scale = Math.max(x.scale(), y.scale());
+        BigInteger m = y.unscaledValue().abs().multiply(BigInteger.TEN.pow(scale - y.scale()));
+        BigInteger shift = BigInteger.TEN.modPow(BigInteger.valueOf((long) scale - x.scale()), m);
+        BigInteger r = x.unscaledValue().abs().mod(m).multiply(shift).mod(m);
+        return new BigDecimal(x.signum() < 0 ? r.negate() : r, scale).round(mc);
+    }
+
+    /**
+     * reduce an angle into [-pi, pi]; reducing a huge angle
+     * needs pi to as many extra digits as the angle has, so
+     * anything past ANGLE_LIMIT is refused instead
+     * @param x     the angle, in radians
+     * @param wmc   the working MathContext
+     * @return      the equivalent angle in [-pi, pi]
+     */
+    private static BigDecimal reduceAngle(BigDecimal x, MathContext wmc) {
+        if (x.abs().compareTo(ANGLE_LIMIT) > 0) {
+            throw new ArithmeticException("Overflow");
+        }
+        MathContext rmc = new MathContext(wmc.getPrecision() + integerDigits(x), RoundingMode.HALF_EVEN);
+        BigDecimal pi = pi(rmc);
+        BigDecimal twoPi = pi.multiply(TWO, rmc);
+        BigDecimal r = x.remainder(twoPi, rmc);
+        if (r.compareTo(pi) > 0) {
+            r = r.subtract(twoPi, rmc);
+        } else if (r.compareTo(pi.negate()) < 0) {
+            r = r.add(twoPi, rmc);
+        }
+        return r.round(wmc);
+    }
+
+    /**
+     * shared taylor series for sin and cos; each term
+     * is the last one times -r^2 / ((k+1)(k+2))
+     * @param r     the reduced angle
+     * @param first the first term; r for sin, 1 for cos
+     * @param k     the power of the first term
+     * @param wmc   the working MathContext
+     * @return      the summed series
+     */
+    private static BigDecimal sinCosSeries(BigDecimal r, BigDecimal first, int k, MathContext wmc) {
+        BigDecimal eps = epsilon(wmc);
+        BigDecimal rSquared = r.multiply(r, wmc);
+        BigDecimal term = first;
+        BigDecimal sum = first;
+        while (term.abs().compareTo(eps) > 0) {
+            term = term.multiply(rSquared, wmc)
+                    .divide(BigDecimal.valueOf((long) (k + 1) * (k + 2)), wmc)
+                    .negate();
+            sum = sum.add(term, wmc);
+            k += 2;
+        }
+        return sum;
+    }
+
+    public static BigDecimal sin(BigDecimal x, MathContext mc) {
+        MathContext wmc = working(mc, 0);
+        BigDecimal r = reduceAngle(x, wmc);
+        return sinCosSeries(r, r, 1, wmc).round(mc);
+    }
+
+    public static BigDecimal cos(BigDecimal x, MathContext mc) {
+        MathContext wmc = working(mc, 0);
+        BigDecimal r = reduceAngle(x, wmc);
+        return sinCosSeries(r, BigDecimal.ONE, 0, wmc).round(mc);
+    }
+
+    public static BigDecimal tan(BigDecimal x, MathContext mc) {
+        MathContext wmc = working(mc, 0);
+        return sin(x, wmc).divide(cos(x, wmc), mc);
+    }
+
+    /**
+     * arctangent; fold |x| > 1 onto 1/x, then use
+     * atan(x) = 2 atan(x / (1 + sqrt(1 + x^2))) to shrink
+     * the argument before summing the taylor series
+     * @param x     the value to take the arctangent of
+     * @param mc    the precision to compute to
+     * @return      atan(x), rounded to mc
+     */
+    public static BigDecimal atan(BigDecimal x, MathContext mc) {
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        MathContext wmc = working(mc, 0);
+        if (x.abs().compareTo(BigDecimal.ONE) > 0) {
+            BigDecimal halfPi = pi(wmc).divide(TWO, wmc);
+            BigDecimal inner = atan(BigDecimal.ONE.divide(x, wmc), wmc);
+            BigDecimal result = (x.signum() > 0) ? halfPi.subtract(inner, wmc) : halfPi.negate().subtract(inner, wmc);
+            return result.round(mc);
+        }
+        int doublings = 0;
+        BigDecimal r = x;
+        while (r.abs().compareTo(TENTH) > 0) {
+            BigDecimal root = BigDecimal.ONE.add(r.multiply(r, wmc), wmc).sqrt(wmc);
+            r = r.divide(BigDecimal.ONE.add(root, wmc), wmc);
+            doublings++;
+        }
+        BigDecimal eps = epsilon(wmc);
+        BigDecimal rSquared = r.multiply(r, wmc);
+        BigDecimal power = r;
+        BigDecimal sum = r;
+        for (int k = 1; power.abs().compareTo(eps) > 0; k++) {
+            power = power.multiply(rSquared, wmc).negate();
+            sum = sum.add(power.divide(BigDecimal.valueOf(2L * k + 1), wmc), wmc);
+        }
+        return sum.multiply(TWO.pow(doublings), wmc).round(mc);
+    }
+
+    public static BigDecimal asin(BigDecimal x, MathContext mc) {
+        int cmp = x.abs().compareTo(BigDecimal.ONE);
+        if (cmp > 0) {
+            throw new ArithmeticException("Undefined");
+        } else if (cmp == 0) {
+            BigDecimal halfPi = pi(mc).divide(TWO, mc);
+            return (x.signum() > 0) ? halfPi : halfPi.negate();
+        }
+        MathContext wmc = working(mc, 0);
+        BigDecimal root = BigDecimal.ONE.subtract(x.multiply(x, wmc), wmc).sqrt(wmc);
+        return atan(x.divide(root, wmc), mc);
+    }
+
+    public static BigDecimal acos(BigDecimal x, MathContext mc) {
+        MathContext wmc = working(mc, 0);
+        BigDecimal halfPi = pi(wmc).divide(TWO, wmc);
+        return halfPi.subtract(asin(x, wmc), wmc).round(mc);
+    }
+
+    /**
+     * format a result for display; plain notation while
+     * the magnitude fits in the precision, otherwise
+     * scientific notation
+     * @param x     the value to format
+     * @param mc    the precision to round to
+     * @return      the value, as a display string
+     */
+    public static String format(BigDecimal x, MathContext mc) {
+        BigDecimal stripped = x.round(mc).stripTrailingZeros();
+        int exponent = stripped.precision() - stripped.scale() - 1;
+        if (Math.abs(exponent) < mc.getPrecision()) {
+            return stripped.toPlainString();
+        }
+        return stripped.toString();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+    DoubleKernel.java
+
+    The default, 'fast path' number kernel; compiles
+    expressions down to lambdas over primitive doubles,
+    exactly as the parser always has.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.util.HashMap;
+import java.util.function.DoubleUnaryOperator;
+
+public class DoubleKernel implements NumberKernel<Expression> {
+
+    // instance variables
+    private final HashMap<String, DoubleUnaryOperator> map;
+
+    /**
+     * Constructor for our double kernel, builds
+     * the lookup map of unary functions
+     */
+    public DoubleKernel() {
+        this.map = new HashMap<>();
+        initFuncMap();
+    }
+
+    /**
+     * Populate our function map to lookup
+     * actual math functions, as DoubleUnaryOperations,
+     * based on input string/character.
+     */
+    private void initFuncMap() {
+        map.put("sin", Math::sin);
+        map.put("cos", Math::cos);
+        map.put("tan", Math::tan);
+        map.put("asin", Math::asin);
+        map.put("acos", Math::acos);
+        map.put("atan", Math::atan);
+        map.put("sqrt", Math::sqrt);
+        map.put("√", Math::sqrt);
+        map.put("log", Math::log);
+        map.put("exp", Math::exp);
+        map.put("sec", (val) -> (1.0 / Math.cos(val)));
+        map.put("csc", (val) -> (1.0 / Math.sin(val)));
+        map.put("cot", (val) -> (1.0 / Math.tan(val)));
+    }
+
+    @Override
+    public Expression constant(String literal) {
+        double d = Double.parseDouble(literal);
+        return () -> d;
+    }
+
+    @Override
+    public Expression variable(String name, HashMap<String, Double> vars) {
+        return () -> vars.get(name);
+    }
+
+    @Override
+    public boolean hasFunction(String name) {
+        return map.containsKey(name);
+    }
+
+    @Override
+    public Expression function(String name, Expression arg) {
+        DoubleUnaryOperator func = map.get(name);
+        return () -> func.applyAsDouble(arg.eval());
+    }
+
+    @Override
+    public Expression add(Expression left, Expression right) {
+        return () -> left.eval() + right.eval();
+    }
+
+    @Override
+    public Expression subtract(Expression left, Expression right) {
+        return () -> left.eval() - right.eval();
+    }
+
+    @Override
+    public Expression multiply(Expression left, Expression right) {
+        return () -> left.eval() * right.eval();
+    }
+
+    @Override
+    public Expression divide(Expression left, Expression right) {
+        return () -> left.eval() / right.eval();
+    }
+
+    @Override
+    public Expression modulo(Expression left, Expression right) {
+        return () -> left.eval() % right.eval();
+    }
+
+    @Override
+    public Expression pow(Expression left, Expression right) {
+        return () -> Math.pow(left.eval(), right.eval());
+    }
+
+    @Override
+    public Expression root(Expression left, Expression right) {
+        return () -> Math.pow(left.eval(), (1.0 / right.eval()));
+    }
+
+    @Override
+    public Expression negate(Expression right) {
+        return () -> (-1.0 * right.eval());
+    }
+}
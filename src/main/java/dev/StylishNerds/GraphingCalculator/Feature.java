@@ -0,0 +1,63 @@
+/*
+    Feature.java
+    This class is the model for a point of interest
+    on the graph; a zero, a local max/min, or the
+    intersection of two plotted functions.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+public class Feature {
+
+    public enum Kind {
+        ZERO("zero"),
+        MAXIMUM("max"),
+        MINIMUM("min"),
+        INTERSECTION("intersect");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final double x;
+    private final double y;
+
+    /**
+     * Constructor:
+     * @param kind  what sort of feature this is
+     * @param name  the function(s) it belongs to, e.g. "y0" or "y0/y1"
+     * @param x     the x coordinate of the feature
+     * @param y     the y coordinate of the feature
+     */
+    public Feature(Kind kind, String name, double x, double y) {
+        this.kind = kind;
+        this.name = name;
+        this.x = x;
+        this.y = y;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s  (%.4f, %.4f)", name, kind.label, x, y);
+    }
+}
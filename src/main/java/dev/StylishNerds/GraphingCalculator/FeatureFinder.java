@@ -0,0 +1,345 @@
+/*
+    FeatureFinder.java
+
+    Finds the zeros, local maxima/minima, and pairwise
+    intersections of the plotted functions, inside the
+    current viewport.
+
+    Each function is sampled once on a grid anchored at
+    multiples of a power-of-two step; sign changes in the
+    samples (or in the difference of two functions'
+    samples) bracket a feature, which is then refined
+    against the compiled expression itself.
+
+    Samples are cached between runs, so editing one row,
+    or dragging one edge of the viewport, only samples
+    what actually changed. Refined features are cached
+    per curve (or pair) and grid, before any viewport
+    filtering, so changing the y range, or moving x less
+    than one grid step, doesn't refine anything again.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleUnaryOperator;
+
+public class FeatureFinder {
+
+    private static final int TARGET_SAMPLES = 1024;
+    private static final int MAX_ITERATIONS = 100;
+    private static final double GOLDEN = (Math.sqrt(5) - 1) / 2;
+
+    /**
+     * A function to search; the expression and its
+     * vars map must belong to the finder alone, since
+     * it is evaluated off the FX thread
+     */
+    public static class Curve {
+
+        private final int index;
+        private final String rawInput;
+        private final String varName;
+        private final Expression expression;
+        private final HashMap<String, Double> vars;
+
+        /**
+         * Constructor:
+         * @param index         the table index for the function
+         * @param rawInput      the user input the expression was compiled from
+         * @param varName       the variable the function is in
+         * @param expression    a compiled expression, private to this curve
+         * @param vars          the vars map the expression was compiled with
+         */
+        public Curve(int index, String rawInput, String varName,
+                     Expression expression, HashMap<String, Double> vars) {
+            this.index = index;
+            this.rawInput = rawInput;
+            this.varName = varName;
+            this.expression = expression;
+            this.vars = vars;
+        }
+
+        /**
+         * evaluate the curve at x; a row that can't be evaluated
+         * (e.g. an unknown variable) reads as NaN, which the
+         * bracketing skips, rather than failing the whole search
+         */
+        private double eval(double x) {
+            vars.put(varName, x);
+            try {
+                return expression.eval();
+            } catch (RuntimeException e) {
+                return Double.NaN;
+            }
+        }
+
+        private String getName() {
+            return "y" + index;
+        }
+    }
+
+    /**
+     * cached samples for one function, at x = (first + i) * step
+     */
+    private static class Samples {
+
+        private final String rawInput;
+        private final double step;
+        private final long first;
+        private final double[] ys;
+
+        private Samples(String rawInput, double step, long first, double[] ys) {
+            this.rawInput = rawInput;
+            this.step = step;
+            this.first = first;
+            this.ys = ys;
+        }
+    }
+
+    // instance variables
+    private final HashMap<Integer, Samples> samples;
+    private final HashMap<String, List<Feature>> results;
+
+    public FeatureFinder() {
+        this.samples = new HashMap<>();
+        this.results = new HashMap<>();
+    }
+
+    /**
+     * find every feature of the given curves inside the viewport
+     * @param curves    the (checked) functions to search
+     * @param xMin      lower bound of the x axis
+     * @param xMax      upper bound of the x axis
+     * @param yMin      lower bound of the y axis
+     * @param yMax      upper bound of the y axis
+     * @param cancelled polled between curves, to stop early
+     * @return          the features found, or an empty list if cancelled
+     */
+    public synchronized List<Feature> find(List<Curve> curves, double xMin, double xMax,
+                                           double yMin, double yMax, BooleanSupplier cancelled) {
+        List<Feature> found = new ArrayList<>();
+        if (!(xMax > xMin && yMax > yMin)) {
+            return found;
+        }
+        // a power-of-two step keeps the grid stable while only one edge moves
+        double step = Math.pow(2, Math.floor(Math.log((xMax - xMin) / TARGET_SAMPLES) / Math.log(2)));
+        long first = (long) Math.floor(xMin / step);
+        long last = (long) Math.ceil(xMax / step);
+        String grid = "|" + step + "|" + first + "|" + last;
+
+        HashSet<Integer> usedSamples = new HashSet<>();
+        HashSet<String> usedResults = new HashSet<>();
+        double[][] ys = new double[curves.size()][];
+        for (int i = 0; i < curves.size(); i++) {
+            if (cancelled.getAsBoolean()) {
+                return new ArrayList<>();
+            }
+            Curve c = curves.get(i);
+            ys[i] = sample(c, step, first, last);
+            usedSamples.add(c.index);
+
+            String key = c.getName() + "=" + c.rawInput + grid;
+            List<Feature> features = results.get(key);
+            if (features == null) {
+                features = new ArrayList<>();
+                findCrossings(c::eval, ys[i], null, step, first, c, Feature.Kind.ZERO, c.getName(), features);
+                findExtrema(c, ys[i], step, first, features);
+                results.put(key, features);
+            }
+            usedResults.add(key);
+            addVisible(found, features, xMin, xMax, yMin, yMax);
+        }
+
+        for (int i = 0; i < curves.size(); i++) {
+            for (int j = i + 1; j < curves.size(); j++) {
+                if (cancelled.getAsBoolean()) {
+                    return new ArrayList<>();
+                }
+                Curve a = curves.get(i), b = curves.get(j);
+                String key = a.getName() + "=" + a.rawInput + "|" + b.getName() + "=" + b.rawInput + grid;
+                List<Feature> features = results.get(key);
+                if (features == null) {
+                    features = new ArrayList<>();
+                    findCrossings((x) -> a.eval(x) - b.eval(x), ys[i], ys[j], step, first, a,
+                            Feature.Kind.INTERSECTION, a.getName() + "/" + b.getName(), features);
+                    results.put(key, features);
+                }
+                usedResults.add(key);
+                addVisible(found, features, xMin, xMax, yMin, yMax);
+            }
+        }
+
+        // drop anything belonging to removed rows, or an old grid
+        samples.keySet().retainAll(usedSamples);
+        results.keySet().retainAll(usedResults);
+        return found;
+    }
+
+    /**
+     * sample a curve on the grid, reusing any overlap
+     * with the samples cached from the last run
+     * @param c     the curve to sample
+     * @param step  the grid spacing
+     * @param first grid index of the first sample
+     * @param last  grid index of the last sample
+     * @return      the sampled y values
+     */
+    private double[] sample(Curve c, double step, long first, long last) {
+        double[] ys = new double[(int) (last - first + 1)];
+        int from = 0, to = 0;   // the range of ys copied from the cache
+        Samples old = samples.get(c.index);
+        if (old != null && old.step == step && old.rawInput.equals(c.rawInput)) {
+            long lo = Math.max(first, old.first);
+            long hi = Math.min(last, old.first + old.ys.length - 1);
+            if (lo <= hi) {
+                from = (int) (lo - first);
+                to = (int) (hi - first) + 1;
+                System.arraycopy(old.ys, (int) (lo - old.first), ys, from, to - from);
+            }
+        }
+        for (int i = 0; i < from; i++) {
+            ys[i] = c.eval((first + i) * step);
+        }
+        for (int i = to; i < ys.length; i++) {
+            ys[i] = c.eval((first + i) * step);
+        }
+        samples.put(c.index, new Samples(c.rawInput, step, first, ys));
+        return ys;
+    }
+
+    /**
+     * bracket sign changes of f between samples, and refine
+     * each one by bisection; f is either a curve itself, or
+     * the difference of two curves (ys - others)
+     * @param f         the function to find the roots of
+     * @param ys        samples of the curve
+     * @param others    samples of the second curve, or null
+     * @param step      the grid spacing
+     * @param first     grid index of the first sample
+     * @param curve     the curve used to report y values
+     * @param kind      the kind of feature to report
+     * @param name      the name to report the feature under
+     * @param found     the list to add features to, visible or not
+     */
+    private void findCrossings(DoubleUnaryOperator f, double[] ys, double[] others, double step, long first,
+                               Curve curve, Feature.Kind kind, String name, List<Feature> found) {
+        double prev = (others == null) ? ys[0] : ys[0] - others[0];
+        for (int i = 1; i < ys.length; i++) {
+            double curr = (others == null) ? ys[i] : ys[i] - others[i];
+            if (Double.isFinite(prev) && Double.isFinite(curr)) {
+                double lo = (first + i - 1) * step, hi = (first + i) * step;
+                double root = Double.NaN;
+                if (prev == 0) {
+                    root = lo;
+                } else if ((prev < 0) != (curr < 0) && curr != 0) {
+                    root = bisect(f, lo, hi, prev);
+                    // a sign change across an asymptote (e.g. tan) isn't a root
+                    if (!(Math.abs(f.applyAsDouble(root)) <= 1e-6 * (1 + Math.abs(prev) + Math.abs(curr)))) {
+                        root = Double.NaN;
+                    }
+                }
+                if (!Double.isNaN(root)) {
+                    found.add(new Feature(kind, name, root, curve.eval(root)));
+                }
+            }
+            prev = curr;
+        }
+    }
+
+    /**
+     * bracket local maxima/minima between samples, where
+     * the slope changes sign, and refine each one with a
+     * golden section search; like findCrossings, every
+     * extremum on the grid is added, visible or not
+     */
+    private void findExtrema(Curve c, double[] ys, double step, long first, List<Feature> found) {
+        for (int i = 1; i < ys.length - 1; i++) {
+            double left = ys[i - 1], mid = ys[i], right = ys[i + 1];
+            if (!(Double.isFinite(left) && Double.isFinite(mid) && Double.isFinite(right))) {
+                continue;
+            }
+            boolean max = mid > left && mid >= right;
+            boolean min = mid < left && mid <= right;
+            if (max || min) {
+                double x = goldenSection(c, (first + i - 1) * step, (first + i + 1) * step, max);
+                found.add(new Feature(max ? Feature.Kind.MAXIMUM : Feature.Kind.MINIMUM,
+                        c.getName(), x, c.eval(x)));
+            }
+        }
+    }
+
+    /**
+     * filter features down to those inside the viewport
+     * @param found     the list to add visible features to
+     * @param features  the cached features for the grid
+     */
+    private static void addVisible(List<Feature> found, List<Feature> features,
+                                   double xMin, double xMax, double yMin, double yMax) {
+        for (Feature f : features) {
+            if (f.getX() >= xMin && f.getX() <= xMax && f.getY() >= yMin && f.getY() <= yMax) {
+                found.add(f);
+            }
+        }
+    }
+
+    /**
+     * bisection root solver
+     * @param f     the function to find a root of
+     * @param lo    lower end of the bracket
+     * @param hi    upper end of the bracket
+     * @param fLo   f(lo), which differs in sign from f(hi)
+     * @return      the root, to within double precision
+     */
+    private static double bisect(DoubleUnaryOperator f, double lo, double hi, double fLo) {
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double mid = 0.5 * (lo + hi);
+            if (mid <= lo || mid >= hi) {
+                break;  // the bracket can't shrink any further
+            }
+            double fMid = f.applyAsDouble(mid);
+            if (fMid == 0) {
+                return mid;
+            } else if ((fMid < 0) == (fLo < 0)) {
+                lo = mid;
+                fLo = fMid;
+            } else {
+                hi = mid;
+            }
+        }
+        return 0.5 * (lo + hi);
+    }
+
+    /**
+     * golden section search for a local max/min
+     * @param c     the curve to search
+     * @param lo    lower end of the bracket
+     * @param hi    upper end of the bracket
+     * @param max   true to find a maximum, false for a minimum
+     * @return      the x value of the extremum
+     */
+    private static double goldenSection(Curve c, double lo, double hi, boolean max) {
+        double sign = max ? -1.0 : 1.0;   // always minimize sign * f
+        double a = hi - GOLDEN * (hi - lo), b = lo + GOLDEN * (hi - lo);
+        double fa = sign * c.eval(a), fb = sign * c.eval(b);
+        for (int i = 0; i < MAX_ITERATIONS && hi - lo > 1e-12 * (1 + Math.abs(lo)); i++) {
+            if (fa < fb) {
+                hi = b;
+                b = a;
+                fb = fa;
+                a = hi - GOLDEN * (hi - lo);
+                fa = sign * c.eval(a);
+            } else {
+                lo = a;
+                a = b;
+                fa = fb;
+                b = lo + GOLDEN * (hi - lo);
+                fb = sign * c.eval(b);
+            }
+        }
+        return 0.5 * (lo + hi);
+    }
+}
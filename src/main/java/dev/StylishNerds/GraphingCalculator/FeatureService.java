@@ -0,0 +1,55 @@
+/*
+    FeatureService.java
+    Runs the FeatureFinder off the FX thread; each
+    update cancels any search still in progress, and
+    starts a new one for the latest rows/viewport.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+import java.util.List;
+
+public class FeatureService extends Service<List<Feature>> {
+
+    // instance variables
+    private final FeatureFinder finder;
+    private List<FeatureFinder.Curve> curves;
+    private double xMin, xMax, yMin, yMax;
+
+    public FeatureService() {
+        this.finder = new FeatureFinder();
+        this.curves = List.of();
+    }
+
+    /**
+     * restart the search with new curves and/or viewport;
+     * must be called from the FX thread
+     * @param curves    the (checked) functions to search
+     * @param xMin      lower bound of the x axis
+     * @param xMax      upper bound of the x axis
+     * @param yMin      lower bound of the y axis
+     * @param yMax      upper bound of the y axis
+     */
+    public void update(List<FeatureFinder.Curve> curves, double xMin, double xMax, double yMin, double yMax) {
+        this.curves = List.copyOf(curves);
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        restart();
+    }
+
+    @Override
+    protected Task<List<Feature>> createTask() {
+        // snapshot our state, so later updates can't change a running task
+        List<FeatureFinder.Curve> curves = this.curves;
+        double xMin = this.xMin, xMax = this.xMax, yMin = this.yMin, yMax = this.yMax;
+        return new Task<>() {
+            @Override
+            protected List<Feature> call() {
+                return finder.find(curves, xMin, xMax, yMin, yMax, this::isCancelled);
+            }
+        };
+    }
+}
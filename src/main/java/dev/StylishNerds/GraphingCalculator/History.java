@@ -0,0 +1,86 @@
+/*
+    History.java
+    This class keeps the scientific mode history;
+    every evaluated expression for up/down recall,
+    and the last good result, for the 'ans' variable.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+public class History {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    // instance variables
+    private final ArrayList<String> entries;
+    private int cursor;     // position of the recalled entry; entries.size() when not recalling
+    private BigDecimal answer;
+    private String draft;   // the unevaluated input, saved when recall starts
+
+    public History() {
+        this.entries = new ArrayList<>();
+        this.cursor = 0;
+        this.answer = BigDecimal.ZERO;
+        this.draft = "";
+    }
+
+    /**
+     * record an evaluated expression
+     * @param expression    the expression, as the user entered it
+     * @param result        the displayed result; only finite
+     *                      numbers replace the current answer
+     */
+    public void add(String expression, String result) {
+        if (entries.isEmpty() || !entries.get(entries.size() - 1).equals(expression)) {
+            entries.add(expression);
+            if (entries.size() > MAX_ENTRIES) {
+                entries.remove(0);
+            }
+        }
+        cursor = entries.size();
+        draft = "";
+        try {
+            answer = new BigDecimal(result);
+        } catch (NumberFormatException e) {
+            // Error, Undefined, Infinity; keep the last good answer
+        }
+    }
+
+    /**
+     * step back through the history
+     * @param current   the input on display; saved if we're
+     *                  only just starting to recall
+     * @return          the previous expression, or null if there isn't one
+     */
+    public String previous(String current) {
+        if (cursor == 0) {
+            return null;
+        }
+        if (cursor == entries.size()) {
+            draft = current;
+        }
+        return entries.get(--cursor);
+    }
+
+    /**
+     * step forward through the history
+     * @return  the next expression, the saved input once we step
+     *          past the most recent entry, or null if we aren't
+     *          recalling anything
+     */
+    public String next() {
+        if (cursor >= entries.size()) {
+            return null;
+        }
+        if (++cursor == entries.size()) {
+            return draft;
+        }
+        return entries.get(cursor);
+    }
+
+    public BigDecimal getAnswer() {
+        return answer;
+    }
+}
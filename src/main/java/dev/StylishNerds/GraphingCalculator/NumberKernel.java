@@ -0,0 +1,44 @@
+/**
+ * NumberKernel.java (interface)
+ *
+ * A numeric 'backend' for the Parser; the parser
+ * only walks the grammar, and asks the kernel to
+ * build each node of the compiled expression tree.
+ *
+ * Kernel methods are only called while compiling,
+ * never while evaluating, so each kernel can hand
+ * back closures specialized for its own number type
+ * (e.g. primitive doubles, or BigDecimals).
+ *
+ * @param <E>   the compiled expression type
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.util.HashMap;
+
+public interface NumberKernel<E> {
+
+    E constant(String literal);
+
+    E variable(String name, HashMap<String, Double> vars);
+
+    boolean hasFunction(String name);
+
+    E function(String name, E arg);
+
+    E add(E left, E right);
+
+    E subtract(E left, E right);
+
+    E multiply(E left, E right);
+
+    E divide(E left, E right);
+
+    E modulo(E left, E right);
+
+    E pow(E left, E right);
+
+    E root(E left, E right);
+
+    E negate(E right);
+}
@@ -0,0 +1,42 @@
+/*
+    NumberMode.java
+    The number backends a user can pick from for
+    scientific mode; plain doubles by default, or
+    BigDecimals at a selectable precision.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+public enum NumberMode {
+    DOUBLE("Double", null),
+    DECIMAL_16("16 digits", MathContext.DECIMAL64),
+    DECIMAL_34("34 digits", MathContext.DECIMAL128),
+    DECIMAL_100("100 digits", new MathContext(100, RoundingMode.HALF_EVEN));
+
+    private final String label;
+    private final MathContext mathContext;
+
+    NumberMode(String label, MathContext mathContext) {
+        this.label = label;
+        this.mathContext = mathContext;
+    }
+
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /**
+     * @return  true if this mode uses the BigDecimal
+     *          kernel instead of primitive doubles
+     */
+    public boolean isDecimal() {
+        return mathContext != null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
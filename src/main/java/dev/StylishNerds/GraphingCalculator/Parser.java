@@ -8,6 +8,11 @@
 
     https://stackoverflow.com/questions/3422673/how-to-evaluate-a-math-expression-given-in-string-form
 
+    The parser itself only walks the grammar; building
+    each node is handed off to a NumberKernel, so the
+    same grammar compiles to either primitive doubles,
+    or arbitrary-precision BigDecimals.
+
     Precedence follows tiers, evaluating by climbing the tree
     bottom to top, (e.g. highest tier to lowest tier)
         1) Addition, Subtraction
@@ -18,12 +23,11 @@
 package dev.StylishNerds.GraphingCalculator;
 
 import java.util.HashMap;
-import java.util.function.DoubleUnaryOperator;
 
-public class Parser {
+public class Parser<E> {
 
     // instance variables
-    private final HashMap<String, DoubleUnaryOperator> map;
+    private final NumberKernel<E> kernel;
     private HashMap<String, Double> vars;
     private int pos;    // keep track of our position in the string
     private int val;    // keep track of the last char we consumed
@@ -31,35 +35,15 @@ public class Parser {
 
     /**
      * Constructor for our expression object, requires
-     * a hashmap to use for looking up operations
+     * a number kernel to build the compiled tree with;
+     * e.g. DoubleKernel for the normal, fast path
+     * @param kernel    the backend used to build each node
      */
-    public Parser() {
-        this.map = new HashMap<>();
-        initFuncMap();
+    public Parser(NumberKernel<E> kernel) {
+        this.kernel = kernel;
         reset();
     }
 
-    /**
-     * Populate our function map to lookup
-     * actual math functions, as DoubleUnaryOperations,
-     * based on input string/character.
-     */
-    private void initFuncMap() {
-        map.put("sin", Math::sin);
-        map.put("cos", Math::cos);
-        map.put("tan", Math::tan);
-        map.put("asin", Math::asin);
-        map.put("acos", Math::acos);
-        map.put("atan", Math::atan);
-        map.put("sqrt", Math::sqrt);
-        map.put("√", Math::sqrt);
-        map.put("log", Math::log);
-        map.put("exp", Math::exp);
-        map.put("sec", (val) -> (1.0 / Math.cos(val)));
-        map.put("csc", (val) -> (1.0 / Math.sin(val)));
-        map.put("cot", (val) -> (1.0 / Math.tan(val)));
-    }
-
     /**
      * advance our parser to look at the
      * next character in the expression
@@ -86,11 +70,11 @@ public class Parser {
      * main parse method, starts the process
      * of building our recursive expression tree
      *
-     * @return  the final, compiled Expression/tree
+     * @return  the final, compiled expression/tree
      */
-    private Expression parse() {
+    private E parse() {
         next(); //consume the next character
-        Expression x = parseTier1();
+        E x = parseTier1();
         if (pos < input.length()) {
             throw new RuntimeException("unexpected char: " + (char) val);
         }
@@ -103,15 +87,15 @@ public class Parser {
      *
      * @return  the compiled child expression
      */
-    private Expression parseTier1() {
-        Expression x = parseTier2();
+    private E parseTier1() {
+        E x = parseTier2();
         while (true) {
             if (consume('+')) {
-                Expression left = x, right = parseTier2();
-                x = () -> left.eval() + right.eval();
+                E left = x, right = parseTier2();
+                x = kernel.add(left, right);
             } else if (consume('-')) {
-                Expression left = x, right = parseTier2();
-                x = () -> left.eval() - right.eval();
+                E left = x, right = parseTier2();
+                x = kernel.subtract(left, right);
             } else {
                 return x;
             }
@@ -124,18 +108,18 @@ public class Parser {
      *
      * @return  the compiled child expression
      */
-    private Expression parseTier2() {
-        Expression x = parseTier3();
+    private E parseTier2() {
+        E x = parseTier3();
         while (true) {
             if (consume('*')) {
-                Expression left = x, right = parseTier3();
-                x = () -> left.eval() * right.eval();
+                E left = x, right = parseTier3();
+                x = kernel.multiply(left, right);
             } else if (consume('/')) {
-                Expression left = x, right = parseTier3();
-                x = () -> left.eval() / right.eval();
+                E left = x, right = parseTier3();
+                x = kernel.divide(left, right);
             }else if (consume('%')) {
-                Expression left = x, right = parseTier3();
-                x = () -> left.eval() % right.eval();
+                E left = x, right = parseTier3();
+                x = kernel.modulo(left, right);
             } else {
                 return x;
             }
@@ -149,16 +133,16 @@ public class Parser {
      *
      * @return  the compiled child expression
      */
-    private Expression parseTier3() {
-        Expression x = parseTier4();
+    private E parseTier3() {
+        E x = parseTier4();
         while (true) {
             // handle exponentiation & nth roots/fractional exponents
             if (consume('^')) {
-                Expression left = x, right = parseTier4();
-                x = () -> Math.pow(left.eval(), right.eval());
+                E left = x, right = parseTier4();
+                x = kernel.pow(left, right);
             } else if (consume('@')) {
-                Expression left = x, right = parseTier4();
-                x = () -> Math.pow(left.eval(), (1.0 / right.eval()));
+                E left = x, right = parseTier4();
+                x = kernel.root(left, right);
             } else {
                 return x;
             }
@@ -171,15 +155,15 @@ public class Parser {
      *
      * @return  the compiled child expression
      */
-    private Expression parseTier4() {
+    private E parseTier4() {
         int start = this.pos;
-        Expression x;   // declare the Expression we're going to return
+        E x;   // declare the expression we're going to return
         if (consume('+')) {
             x = parseTier4();
             return x;
         } else if (consume('-')) {
-            Expression right = parseTier4();
-            x = () -> (-1.0 * right.eval());
+            E right = parseTier4();
+            x = kernel.negate(right);
             return x;
         }
 
@@ -191,21 +175,18 @@ public class Parser {
             while(isNumber()) {
                 next();     // advance our parser to the first non-digit or '.'
             }
-            double d = Double.parseDouble(input.substring(start, this.pos));
-            x = () -> d;
+            x = kernel.constant(input.substring(start, this.pos));
             return x;
         } else if (isAlpha()) {     // handle unary functions, and variables
             while (isAlpha()) {
                 next();     // advance our parser to the first non-alpha
             }
             String fn = input.substring(start, this.pos); // get the name of the function
-            x = parseTier4();    // get the value the function will operate on
-            if (map.containsKey(fn)) {
-                Expression arg = x;
-                DoubleUnaryOperator func = map.get(fn);
-                x = () -> func.applyAsDouble(arg.eval());
+            if (kernel.hasFunction(fn)) {
+                x = parseTier4();    // get the value the function will operate on
+                x = kernel.function(fn, x);
             } else {
-                x = () -> vars.get(fn);
+                x = kernel.variable(fn, vars);  // variables don't take an argument
             }
             return x;
         } else {
@@ -265,9 +246,9 @@ public class Parser {
      * mode as well as normal/scientific.
      * @param exp   the input string to parse
      * @param vars  the map containing variables & values
-     * @return      the result, as compiled Expression tree
+     * @return      the result, as compiled expression tree
      */
-    public Expression eval(String exp, HashMap<String, Double> vars) {
+    public E eval(String exp, HashMap<String, Double> vars) {
         this.vars = vars;
         return this.eval(exp);
     }
@@ -279,7 +260,7 @@ public class Parser {
      * @return  the result, as a compiled
      *          'Expression' Object/Tree
      */
-    public Expression eval(String exp) {
+    public E eval(String exp) {
         try {
             this.input = formatInput(exp);
             return this.parse();
@@ -0,0 +1,62 @@
+/*
+    PreviewService.java
+    Evaluates the live preview off the FX thread, for
+    the decimal modes, where a long expression can take
+    a noticeable while; each update cancels any preview
+    still in progress.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+import java.math.BigDecimal;
+import java.util.HashMap;
+
+public class PreviewService extends Service<String> {
+
+    // instance variables
+    private String input;
+    private String key;
+    private NumberMode mode;
+    private BigDecimal answer;
+
+    /**
+     * restart the preview for new input and/or mode;
+     * must be called from the FX thread
+     * @param input   the expression to evaluate
+     * @param key     the memo key for the result
+     * @param mode    the selected (decimal) number mode
+     * @param answer  the value of 'ans'
+     */
+    public void update(String input, String key, NumberMode mode, BigDecimal answer) {
+        this.input = input;
+        this.key = key;
+        this.mode = mode;
+        this.answer = answer;
+        restart();
+    }
+
+    /**
+     * @return  the memo key of the latest update
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    protected Task<String> createTask() {
+        // snapshot our state, so later updates can't change a running task
+        String input = this.input;
+        NumberMode mode = this.mode;
+        HashMap<String, BigDecimal> values = new HashMap<>();
+        values.put("ans", this.answer);
+        return new Task<>() {
+            @Override
+            protected String call() {
+                // the parser isn't thread safe, so each task builds its own
+                Parser<DecimalExpression> parser = new Parser<>(new DecimalKernel(mode.getMathContext(), values));
+                return Controller.evaluateDecimal(parser, input, mode);
+            }
+        };
+    }
+}
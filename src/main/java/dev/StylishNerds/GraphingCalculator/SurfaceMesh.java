@@ -0,0 +1,196 @@
+/*
+    SurfaceMesh.java
+
+    A square grid mesh for z = f(x, y), at one fixed
+    resolution (level of detail).
+
+    Faces only depend on the resolution, so they are
+    built once; the vertex buffer is allocated once and
+    refilled in place whenever the function or range
+    changes. Vertices are computed in parallel, one
+    square tile of the grid per task.
+
+    Where f is undefined there is no surface; every
+    face touching an undefined vertex is collapsed to
+    a single point, so it isn't drawn at all.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import javafx.scene.shape.TriangleMesh;
+import java.util.HashMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+public class SurfaceMesh {
+
+    public static final float SIZE = 200f;  // width of the mesh, in scene units
+    private static final int TILE = 64;     // vertices per tile side
+
+    // instance variables
+    private final int resolution;   // quads per side
+    private final TriangleMesh mesh;
+    private final float[] points;
+    private final boolean[] undefined;  // vertices where f is NaN
+    private final int[] fullFaces;      // every face of the grid
+    private final int[] faces;          // the faces to show, with holes collapsed
+    private boolean hasHoles;           // whether faces differs from fullFaces
+    private boolean facesChanged;       // whether faces needs copying to the mesh
+    private boolean applied;            // whether the mesh shows the buffers
+    private volatile String generatedFor;   // the input/range the points were last filled for
+
+    /**
+     * Constructor, builds the faces for our grid
+     * @param resolution    the number of quads per side
+     */
+    public SurfaceMesh(int resolution) {
+        this.resolution = resolution;
+        this.mesh = new TriangleMesh();
+        int side = resolution + 1;
+        this.points = new float[side * side * 3];
+        this.undefined = new boolean[side * side];
+        this.fullFaces = new int[resolution * resolution * 12];
+        int f = 0;
+        for (int j = 0; j < resolution; j++) {
+            for (int i = 0; i < resolution; i++) {
+                int p00 = j * side + i, p10 = p00 + 1;
+                int p01 = p00 + side, p11 = p01 + 1;
+                // two triangles per quad; every vertex uses texCoord 0
+                f = addFace(fullFaces, f, p00, p01, p10);
+                f = addFace(fullFaces, f, p10, p01, p11);
+            }
+        }
+        this.faces = fullFaces.clone();
+        mesh.getTexCoords().setAll(0f, 0f);
+        mesh.getPoints().setAll(points);
+        mesh.getFaces().setAll(faces);
+    }
+
+    private static int addFace(int[] faces, int f, int a, int b, int c) {
+        faces[f++] = a;
+        faces[f++] = 0;
+        faces[f++] = b;
+        faces[f++] = 0;
+        faces[f++] = c;
+        faces[f++] = 0;
+        return f;
+    }
+
+    public TriangleMesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     * @param rawInput  the user input for z = f(x, y)
+     * @param range     the half-width of the x/y domain
+     * @return          true if the buffers hold this surface; they
+     *                  may not have been applied to the mesh yet
+     */
+    public boolean isCurrent(String rawInput, double range) {
+        return (rawInput + "|" + range).equals(generatedFor);
+    }
+
+    /**
+     * fill the vertex buffer for z = f(x, y), over
+     * [-range, range] in both x and y; safe to call
+     * off the FX thread, since the mesh itself isn't
+     * touched until apply()
+     * @param rawInput  the user input for z = f(x, y)
+     * @param range     the half-width of the x/y domain
+     * @param cancelled polled between tiles, to stop early
+     * @return          true if the buffer was completely filled
+     */
+    public synchronized boolean generate(String rawInput, double range, BooleanSupplier cancelled) {
+        generatedFor = null;    // the buffer is about to be overwritten
+        applied = false;
+        int side = resolution + 1;
+        int tiles = (side + TILE - 1) / TILE;
+        IntStream.range(0, tiles * tiles).parallel().forEach(t -> {
+            if (!cancelled.getAsBoolean()) {
+                fillTile(rawInput, range, (t % tiles) * TILE, (t / tiles) * TILE);
+            }
+        });
+        if (cancelled.getAsBoolean()) {
+            return false;
+        }
+        collapseHoles();
+        generatedFor = rawInput + "|" + range;
+        return true;
+    }
+
+    /**
+     * evaluate one tile of the grid; the parser isn't
+     * thread safe, so each tile compiles its own copy
+     * of the expression, with its own vars map
+     * @param rawInput  the user input for z = f(x, y)
+     * @param range     the half-width of the x/y domain
+     * @param i0        the first column of the tile
+     * @param j0        the first row of the tile
+     */
+    private void fillTile(String rawInput, double range, int i0, int j0) {
+        int side = resolution + 1;
+        HashMap<String, Double> vars = new HashMap<>();
+        Expression exp = new Parser<>(new DoubleKernel()).eval(rawInput, vars);
+        double step = 2 * range / resolution;
+        float scale = (float) (SIZE / (2 * range));
+        for (int j = j0; j < Math.min(j0 + TILE, side); j++) {
+            double y = -range + j * step;
+            vars.put("y", y);
+            for (int i = i0; i < Math.min(i0 + TILE, side); i++) {
+                double x = -range + i * step;
+                vars.put("x", x);
+                double z = exp.eval();
+                int v = j * side + i;
+                undefined[v] = Double.isNaN(z);
+                if (undefined[v]) {
+                    z = 0;  // a placeholder; collapseHoles() stops it being drawn
+                }
+                z = Math.max(-range, Math.min(range, z));   // keep the surface inside our cube
+                int p = v * 3;
+                // scene y points down, so math z maps to -y, and math y to scene z
+                points[p] = (float) x * scale;
+                points[p + 1] = (float) -z * scale;
+                points[p + 2] = (float) y * scale;
+            }
+        }
+    }
+
+    /**
+     * rebuild the face buffer, collapsing every face
+     * that touches an undefined vertex onto its first
+     * vertex; a zero-area face is never rasterized
+     */
+    private void collapseHoles() {
+        boolean holes = false;
+        for (boolean u : undefined) {
+            holes |= u;
+        }
+        if (!holes && !hasHoles) {
+            return;     // faces already matches fullFaces
+        }
+        for (int f = 0; f < fullFaces.length; f += 6) {
+            int a = fullFaces[f], b = fullFaces[f + 2], c = fullFaces[f + 4];
+            boolean collapse = undefined[a] || undefined[b] || undefined[c];
+            faces[f + 2] = collapse ? a : b;
+            faces[f + 4] = collapse ? a : c;
+        }
+        hasHoles = holes;
+        facesChanged = true;
+    }
+
+    /**
+     * copy the vertex (and, if needed, face) buffers
+     * into the mesh, in place, unless they already
+     * have been; must be called from the FX thread
+     */
+    public synchronized void apply() {
+        if (applied) {
+            return;
+        }
+        mesh.getPoints().set(0, points, 0, points.length);
+        if (facesChanged) {
+            mesh.getFaces().set(0, faces, 0, faces.length);
+            facesChanged = false;
+        }
+        applied = true;
+    }
+}
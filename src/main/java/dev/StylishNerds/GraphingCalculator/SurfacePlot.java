@@ -0,0 +1,175 @@
+/*
+    SurfacePlot.java
+
+    The 3D view for surface mode; shows z = f(x, y)
+    as a MeshView in a SubScene, which can be rotated
+    by dragging, and zoomed with the scroll wheel.
+
+    The mesh resolution (level of detail) follows the
+    camera distance; each level keeps its own mesh,
+    so zooming back and forth only swaps meshes, and
+    rotating never touches the mesh at all.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import javafx.scene.AmbientLight;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.PointLight;
+import javafx.scene.SceneAntialiasing;
+import javafx.scene.SubScene;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.transform.Rotate;
+
+public class SurfacePlot {
+
+    // quads per side for each level of detail, and the
+    // camera distance at which we drop to the next level
+    private static final int[] LEVELS = {500, 250, 125, 62};
+    private static final double[] LEVEL_DISTANCES = {600, 1200, 2400};
+    private static final double MIN_DISTANCE = 150;
+    private static final double MAX_DISTANCE = 5000;
+
+    // instance variables
+    private final SurfaceMesh[] meshes;
+    private final MeshView meshView;
+    private final PerspectiveCamera camera;
+    private final Rotate rotateX, rotateY;
+    private final SurfaceService service;
+    private String rawInput;
+    private double range;
+    private double anchorX, anchorY;    // last mouse position while dragging
+
+    /**
+     * Constructor, builds the 3D scene inside a container
+     * @param container the pane to fill with our SubScene
+     */
+    public SurfacePlot(Pane container) {
+        this.meshes = new SurfaceMesh[LEVELS.length];
+        this.meshView = new MeshView();
+        this.camera = new PerspectiveCamera(true);
+        this.rotateX = new Rotate(-30, Rotate.X_AXIS);
+        this.rotateY = new Rotate(-30, Rotate.Y_AXIS);
+        this.service = new SurfaceService();
+        this.rawInput = "";
+
+        meshView.setCullFace(CullFace.NONE);    // show both sides of the surface
+        meshView.setMaterial(new PhongMaterial(Color.web("#C7ACE5")));
+        meshView.setVisible(false);
+
+        Group world = new Group(meshView, axis(SurfaceMesh.SIZE, 1, 1),
+                axis(1, SurfaceMesh.SIZE, 1), axis(1, 1, SurfaceMesh.SIZE));
+        world.getTransforms().addAll(rotateX, rotateY);
+        PointLight light = new PointLight(Color.gray(0.6));
+        light.setTranslateY(-SurfaceMesh.SIZE * 2);
+        light.setTranslateZ(-SurfaceMesh.SIZE * 2);
+
+        camera.setNearClip(1);
+        camera.setFarClip(MAX_DISTANCE * 2);
+        camera.setTranslateZ(-500);
+
+        SubScene subScene = new SubScene(new Group(world, light, new AmbientLight(Color.gray(0.4))),
+                0, 0, true, SceneAntialiasing.DISABLED);
+        subScene.setFill(Color.web("#1C1E26"));
+        subScene.setCamera(camera);
+        subScene.widthProperty().bind(container.widthProperty());
+        subScene.heightProperty().bind(container.heightProperty());
+        container.getChildren().add(subScene);
+
+        initControls(subScene);
+        service.setOnSucceeded(e -> {
+            SurfaceMesh mesh = service.getValue();
+            if (mesh != null) {
+                mesh.apply();
+                meshView.setMesh(mesh.getMesh());
+                meshView.setVisible(true);
+            }
+        });
+        service.setOnFailed(e -> meshView.setVisible(false));   // e.g. the input didn't parse
+    }
+
+    /**
+     * build a thin box to use as an axis
+     */
+    private static Box axis(double width, double height, double depth) {
+        Box box = new Box(width, height, depth);
+        box.setMaterial(new PhongMaterial(Color.web("#6C6F93")));
+        return box;
+    }
+
+    /**
+     * drag to rotate, scroll to zoom
+     * @param subScene  the SubScene to listen to
+     */
+    private void initControls(SubScene subScene) {
+        subScene.setOnMousePressed(e -> {
+            anchorX = e.getSceneX();
+            anchorY = e.getSceneY();
+        });
+        subScene.setOnMouseDragged(e -> {
+            rotateY.setAngle(rotateY.getAngle() + (e.getSceneX() - anchorX) * 0.5);
+            rotateX.setAngle(rotateX.getAngle() - (e.getSceneY() - anchorY) * 0.5);
+            anchorX = e.getSceneX();
+            anchorY = e.getSceneY();
+        });
+        subScene.setOnScroll(e -> {
+            double distance = -camera.getTranslateZ() * Math.pow(1.001, -e.getDeltaY());
+            camera.setTranslateZ(-Math.max(MIN_DISTANCE, Math.min(MAX_DISTANCE, distance)));
+            refresh();
+        });
+    }
+
+    /**
+     * plot a new surface, or the same surface over a new range
+     * @param rawInput  the user input for z = f(x, y)
+     * @param range     the half-width of the x/y domain
+     */
+    public void plot(String rawInput, double range) {
+        this.rawInput = (rawInput == null) ? "" : rawInput;
+        this.range = range;
+        refresh();
+    }
+
+    /**
+     * show the mesh for the current level of detail,
+     * only regenerating it if it's out of date
+     */
+    private void refresh() {
+        if (rawInput.isBlank()) {
+            service.cancel();
+            meshView.setVisible(false);
+            return;
+        }
+        int level = levelFor(-camera.getTranslateZ());
+        if (meshes[level] == null) {
+            meshes[level] = new SurfaceMesh(LEVELS[level]);
+        }
+        SurfaceMesh mesh = meshes[level];
+        if (mesh.isCurrent(rawInput, range)) {
+            service.cancel();
+            // the task that filled it may have been cancelled before applying it
+            mesh.apply();
+            meshView.setMesh(mesh.getMesh());
+            meshView.setVisible(true);
+        } else if (!service.isGenerating(mesh, rawInput, range)) {
+            service.update(mesh, rawInput, range);
+        }
+    }
+
+    /**
+     * @param distance  the camera distance from the origin
+     * @return          the index into LEVELS to use
+     */
+    private static int levelFor(double distance) {
+        int level = 0;
+        while (level < LEVEL_DISTANCES.length && distance > LEVEL_DISTANCES[level]) {
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+    SurfaceService.java
+    Generates a SurfaceMesh off the FX thread; each
+    update cancels any generation still in progress.
+ */
+package dev.StylishNerds.GraphingCalculator;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+public class SurfaceService extends Service<SurfaceMesh> {
+
+    // instance variables
+    private SurfaceMesh target;
+    private String rawInput;
+    private double range;
+
+    /**
+     * restart generation for a new mesh, function, or range;
+     * must be called from the FX thread
+     * @param target    the mesh (level of detail) to fill
+     * @param rawInput  the user input for z = f(x, y)
+     * @param range     the half-width of the x/y domain
+     */
+    public void update(SurfaceMesh target, String rawInput, double range) {
+        this.target = target;
+        this.rawInput = rawInput;
+        this.range = range;
+        restart();
+    }
+
+    /**
+     * @return  true if we're already generating exactly this
+     *          surface, so there's no need to restart
+     */
+    public boolean isGenerating(SurfaceMesh target, String rawInput, double range) {
+        return isRunning() && target == this.target
+                && rawInput.equals(this.rawInput) && range == this.range;
+    }
+
+    @Override
+    protected Task<SurfaceMesh> createTask() {
+        // snapshot our state, so later updates can't change a running task
+        SurfaceMesh target = this.target;
+        String rawInput = this.rawInput;
+        double range = this.range;
+        return new Task<>() {
+            @Override
+            protected SurfaceMesh call() {
+                return target.generate(rawInput, range, this::isCancelled) ? target : null;
+            }
+        };
+    }
+}